@@ -1,12 +1,39 @@
+import java.io.IOException;
+
 public class CommandProcessor {
     private final DeterministicFSM fsm;
     private final FileManager fileManager;
+    private SessionTrace trace;
     public CommandProcessor(DeterministicFSM fsm) {
         this.fsm = fsm;
         this.fileManager = new FileManager();
     }
+    public void startRecording(String filename) {
+        stopRecording();
+        try {
+            trace = new SessionTrace(filename);
+        } catch (IOException e) {
+            System.out.println("Error: cannot create trace file " + filename);
+        }
+    }
+    public void stopRecording() {
+        if (trace == null) return;
+        try {
+            trace.close();
+        } catch (IOException e) {
+            System.out.println("Error: cannot close trace file - " + e.getMessage());
+        }
+        trace = null;
+    }
     public void processCommand(String command,int lineNum) {
+        if (trace != null) {
+            try {
+                trace.record(command, lineNum);
+            } catch (IOException e) {
+                System.out.println("Error: cannot write trace - " + e.getMessage());
+                stopRecording();
+            }
+        }
         fsm.processRawCommand(command,lineNum);
     }
 }
- 
\ No newline at end of file
@@ -369,10 +369,25 @@ public class DeterministicFSM extends FSM {
                     addTransitions(list);
                 }
 
+                case "REGEX" -> {
+                    String pattern = command.trim().substring(cmd.length()).trim();
+                    if (pattern.endsWith(";")) {
+                        pattern = pattern.substring(0, pattern.length() - 1).trim();
+                    }
+                    try {
+                        new RegexCompiler(pattern, symbols).compileInto(this);
+                        printAndLog("FSM built from regex with " + states.size() + " states");
+                    } catch (IllegalArgumentException e) {
+                        printAndLog("Error: " + e.getMessage());
+                    } catch (OutOfMemoryError e) {
+                        printAndLog("Error: not enough memory to build the regex automaton");
+                    }
+                }
+
                 case "PRINT" -> {
                     if (tokens.length >= 2) {
                         String filename = tokens[1].replaceAll(";+$", "");
-                        try (PrintWriter writer = new PrintWriter(new FileWriter(filename))) {
+                        try (PrintWriter writer = new PrintWriter(new BufferedWriter(new FileWriter(filename), 1 << 16))) {
                             writer.println("SYMBOLS " + symbols);
                             writer.println("STATES " + states.stream()
                                     .map(State::getName)
@@ -395,12 +410,99 @@ public class DeterministicFSM extends FSM {
                         printConfiguration();
                     }
                 }
+                case "EXPORT" -> {
+                    if (tokens.length >= 3) {
+                        String fmtTok = tokens[1].replaceAll(";+$", "");
+                        String filename = tokens[2].replaceAll(";+$", "");
+                        String optTok = tokens.length >= 4 ? tokens[3].replaceAll(";+$", "") : "";
+                        String badOpt = !optTok.isEmpty() && !optTok.equalsIgnoreCase("SORTED") ? optTok
+                                : tokens.length > 4 ? tokens[4].replaceAll(";+$", "") : null;
+                        FsmExporter.Format format = FsmExporter.parseFormat(fmtTok);
+                        if (format == null) {
+                            printAndLog("Error: invalid export format " + fmtTok);
+                        } else if (badOpt != null) {
+                            printAndLog("Error: invalid export option " + badOpt);
+                        } else {
+                            try {
+                                new FsmExporter(format, !optTok.isEmpty()).export(this, filename);
+                                printAndLog("FSM exported as " + format + " to file: " + filename);
+                            } catch (IOException e) {
+                                printAndLog("Error: cannot create or override file " + filename
+                                        + " - " + FsmExporter.describe(e));
+                            }
+                        }
+                    } else {
+                        printAndLog("Error: EXPORT requires a format and a filename");
+                    }
+                }
                 case "EXECUTE" -> {
                     if (tokens.length >= 2)
                         printAndLog(execute(tokens[1]));
                     else
                         printAndLog("Error: EXECUTE requires an input string");
                 }
+                case "COUNT" -> {
+                    if (tokens.length >= 2) {
+                        String tok = tokens[1].replaceAll(";+$", "");
+                        long length = parseBounded(tok, Integer.MAX_VALUE);
+                        if (length < 0) {
+                            printAndLog("Error: invalid length " + tok);
+                        } else if (initialState == null) {
+                            printAndLog("Error: no initial state defined");
+                        } else {
+                            try {
+                                printAndLog(new LanguageCounter(this).count((int) length).toString());
+                            } catch (IllegalArgumentException e) {
+                                printAndLog("Error: " + e.getMessage());
+                            } catch (OutOfMemoryError e) {
+                                printAndLog("Error: not enough memory to count strings of length " + length);
+                            }
+                        }
+                    } else {
+                        printAndLog("Error: COUNT requires a length");
+                    }
+                }
+                case "SAMPLE" -> {
+                    if (tokens.length >= 3) {
+                        String lenTok = tokens[1].replaceAll(";+$", "");
+                        String kTok = tokens[2].replaceAll(";+$", "");
+                        long length = parseBounded(lenTok, Integer.MAX_VALUE);
+                        long k = parseBounded(kTok, Long.MAX_VALUE);
+                        if (length < 0) {
+                            printAndLog("Error: invalid length " + lenTok);
+                        } else if (k <= 0) {
+                            printAndLog("Error: invalid sample count " + kTok);
+                        } else if (initialState == null) {
+                            printAndLog("Error: no initial state defined");
+                        } else {
+                            LanguageCounter counter = new LanguageCounter(this);
+                            try {
+                                if (tokens.length >= 4) {
+                                    String filename = tokens[3].replaceAll(";+$", "");
+                                    try (BufferedWriter writer = new BufferedWriter(new FileWriter(filename), 1 << 16)) {
+                                        long written = counter.sample((int) length, k, str -> {
+                                            writer.write(str);
+                                            writer.newLine();
+                                        });
+                                        printAndLog(written == 0
+                                                ? "No accepted strings of length " + length
+                                                : written + " samples written to file: " + filename);
+                                    } catch (IOException e) {
+                                        printAndLog("Error: cannot create or override file " + filename + " - " + e.getMessage());
+                                    }
+                                } else if (counter.sample((int) length, k, this::printAndLog) == 0) {
+                                    printAndLog("No accepted strings of length " + length);
+                                }
+                            } catch (IllegalArgumentException e) {
+                                printAndLog("Error: " + e.getMessage());
+                            } catch (OutOfMemoryError e) {
+                                printAndLog("Error: not enough memory to sample strings of length " + length);
+                            }
+                        }
+                    } else {
+                        printAndLog("Error: SAMPLE requires a length and a sample count");
+                    }
+                }
                 case "COMPILE" -> {
                     if (tokens.length >= 2) {
                         String filename = tokens[1].replaceAll(";+$", "");
@@ -451,6 +553,17 @@ public class DeterministicFSM extends FSM {
         }
     }
 
+    // parses a non-negative decimal no larger than max, or returns -1
+    private static long parseBounded(String tok, long max) {
+        if (!tok.matches("\\d+")) return -1;
+        try {
+            long v = Long.parseLong(tok);
+            return v <= max ? v : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
     private void printAndLog(String message) {
         System.out.println(message);
         logger.log(message);
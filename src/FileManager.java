@@ -48,26 +48,8 @@ public class FileManager {
     }
 
     public void saveToText(FSM fsm, String filename) {
-        try (PrintWriter pw = new PrintWriter(new FileWriter(filename))) {
-            pw.print("SYMBOLS");
-            for (char s : fsm.getSymbols()) pw.print(" " + s);
-            pw.println(";");
-
-            pw.print("STATES");
-            for (State st : fsm.getStates()) pw.print(" " + st.getName());
-            pw.println(";");
-
-            pw.println("INITIAL-STATE " + fsm.getInitialState().getName() + ";");
-
-            pw.print("FINAL-STATES");
-            for (State st : fsm.getFinalStates()) pw.print(" " + st.getName());
-            pw.println(";");
-
-            pw.print("TRANSITIONS");
-            for (Transition t : fsm.getTransitions()) {
-                pw.print(" " + t.getSymbol() + " " + t.getCurrentState().getName() + " " + t.getNextState().getName() + ",");
-            }
-            pw.println(";");
+        try {
+            new FsmExporter(FsmExporter.Format.TXT, false).export(fsm, filename);
         } catch (IOException e) {
             System.out.println("Error: cannot write file " + filename);
         }
@@ -0,0 +1,148 @@
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.stream.IntStream;
+
+public class FsmExporter {
+    public enum Format { DOT, CSV, TXT }
+
+    private static final int BUFFER_SIZE = 1 << 16;
+    // transitions formatted per batch; bounds memory regardless of machine size
+    private static final int BATCH_SIZE = 1 << 16;
+    // batches at least this large are split and formatted in parallel
+    private static final int PARALLEL_THRESHOLD = 1 << 14;
+    private static final int PARALLEL_CHUNK = 1 << 12;
+    // entries per TRANSITIONS command in the text format
+    private static final int TXT_CHUNK = 1000;
+
+    private final Format format;
+    private final boolean sorted;
+
+    public FsmExporter(Format format, boolean sorted) {
+        this.format = format;
+        this.sorted = sorted;
+    }
+
+    public static Format parseFormat(String name) {
+        try {
+            return Format.valueOf(name.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /** Readable reason for a failed export; NIO file exceptions carry only the path as message. */
+    public static String describe(IOException e) {
+        if (e instanceof NoSuchFileException) return "the directory does not exist";
+        if (e instanceof AccessDeniedException) return "permission denied";
+        if (e instanceof FileSystemException fse && fse.getReason() != null) return fse.getReason();
+        return e.getMessage();
+    }
+
+    public void export(FSM fsm, String filename) throws IOException {
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(
+                Files.newOutputStream(Paths.get(filename)), StandardCharsets.UTF_8), BUFFER_SIZE)) {
+            export(fsm, out);
+        }
+    }
+
+    public void export(FSM fsm, Writer out) throws IOException {
+        List<State> states = fsm.getStates();
+        List<Transition> transitions = fsm.getTransitions();
+        if (sorted) {
+            states = new ArrayList<>(states);
+            states.sort(Comparator.comparing(State::getName));
+            transitions = new ArrayList<>(transitions);
+            transitions.sort(Comparator.comparing((Transition t) -> t.getSymbol())
+                    .thenComparing(t -> t.getCurrentState().getName()));
+        }
+        switch (format) {
+            case DOT -> writeDotHeader(fsm, states, out);
+            case CSV -> out.write("symbol,from,to\n");
+            case TXT -> writeTxtHeader(fsm, states, out);
+        }
+        for (int from = 0; from < transitions.size(); from += BATCH_SIZE) {
+            writeBatch(transitions, from, Math.min(from + BATCH_SIZE, transitions.size()), out);
+        }
+        switch (format) {
+            case DOT -> out.write("}\n");
+            case TXT -> { if (!transitions.isEmpty()) out.write(";\n"); }
+            default -> { }
+        }
+    }
+
+    private void writeBatch(List<Transition> transitions, int from, int to, Writer out) throws IOException {
+        if (to - from < PARALLEL_THRESHOLD) {
+            StringBuilder sb = new StringBuilder();
+            for (int i = from; i < to; i++) appendTransition(sb, transitions.get(i), i);
+            out.write(sb.toString());
+            return;
+        }
+        int chunks = (to - from + PARALLEL_CHUNK - 1) / PARALLEL_CHUNK;
+        String[] parts = new String[chunks];
+        IntStream.range(0, chunks).parallel().forEach(c -> {
+            StringBuilder sb = new StringBuilder();
+            int end = Math.min(from + (c + 1) * PARALLEL_CHUNK, to);
+            for (int i = from + c * PARALLEL_CHUNK; i < end; i++) appendTransition(sb, transitions.get(i), i);
+            parts[c] = sb.toString();
+        });
+        for (String part : parts) out.write(part);
+    }
+
+    private void appendTransition(StringBuilder sb, Transition t, int index) {
+        String cur = t.getCurrentState().getName();
+        String nxt = t.getNextState().getName();
+        switch (format) {
+            case DOT -> sb.append("  \"").append(cur).append("\" -> \"").append(nxt)
+                    .append("\" [label=\"").append(t.getSymbol()).append("\"];\n");
+            case CSV -> sb.append(t.getSymbol()).append(',').append(cur).append(',').append(nxt).append('\n');
+            case TXT -> {
+                if (index % TXT_CHUNK == 0) {
+                    if (index > 0) sb.append(";\n");
+                    sb.append("TRANSITIONS\n");
+                } else {
+                    sb.append(",\n");
+                }
+                sb.append("  ").append(t.getSymbol()).append(' ').append(cur).append(' ').append(nxt);
+            }
+        }
+    }
+
+    private void writeDotHeader(FSM fsm, List<State> states, Writer out) throws IOException {
+        out.write("digraph fsm {\n  rankdir=LR;\n");
+        for (State st : states) {
+            out.write("  \"" + st.getName() + "\" [shape="
+                    + (fsm.getFinalStates().contains(st) ? "doublecircle" : "circle") + "];\n");
+        }
+        if (fsm.getInitialState() != null) {
+            out.write("  __start [shape=point];\n  __start -> \"" + fsm.getInitialState().getName() + "\";\n");
+        }
+    }
+
+    private void writeTxtHeader(FSM fsm, List<State> states, Writer out) throws IOException {
+        if (!fsm.getSymbols().isEmpty()) {
+            out.write("SYMBOLS");
+            for (char s : fsm.getSymbols()) out.write(" " + s);
+            out.write(";\n");
+        }
+
+        if (!states.isEmpty()) {
+            out.write("STATES");
+            for (State st : states) out.write(" " + st.getName());
+            out.write(";\n");
+        }
+
+        if (fsm.getInitialState() != null) out.write("INITIAL-STATE " + fsm.getInitialState().getName() + ";\n");
+
+        if (!fsm.getFinalStates().isEmpty()) {
+            out.write("FINAL-STATES");
+            for (State st : fsm.getFinalStates()) out.write(" " + st.getName());
+            out.write(";\n");
+        }
+    }
+}
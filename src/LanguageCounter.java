@@ -0,0 +1,175 @@
+import java.io.*;
+import java.math.BigInteger;
+import java.util.*;
+import java.util.stream.IntStream;
+
+public class LanguageCounter {
+    // below this many states the fork/join overhead outweighs a parallel layer
+    private static final int PARALLEL_THRESHOLD = 1024;
+    // characters buffered per batch of samples walking the DP layers together
+    private static final int SAMPLE_BATCH_CHARS = 1 << 20;
+    // approximate header and reference cost of one BigInteger in a layer, in bytes
+    private static final int BIGINTEGER_OVERHEAD = 48;
+
+    private final char[] alphabet;
+    private final int[][] delta;
+    private final boolean[] accepting;
+    private final int start;
+    private final Random random;
+
+    public LanguageCounter(FSM fsm) {
+        this(fsm, new Random());
+    }
+
+    public LanguageCounter(FSM fsm, Random random) {
+        this.random = random;
+        List<State> states = fsm.getStates();
+        Map<State, Integer> index = new HashMap<>();
+        for (State st : states) index.putIfAbsent(st, index.size());
+
+        alphabet = new char[fsm.getSymbols().size()];
+        Map<Character, Integer> symIndex = new HashMap<>();
+        int a = 0;
+        for (char c : fsm.getSymbols()) {
+            alphabet[a] = c;
+            symIndex.put(c, a++);
+        }
+
+        delta = new int[index.size()][alphabet.length];
+        for (int[] row : delta) Arrays.fill(row, -1);
+        for (Transition t : fsm.getTransitions()) {
+            Integer from = index.get(t.getCurrentState());
+            Integer to = index.get(t.getNextState());
+            Integer sym = symIndex.get(t.getSymbol());
+            if (from != null && to != null && sym != null) delta[from][sym] = to;
+        }
+
+        accepting = new boolean[index.size()];
+        for (State st : fsm.getFinalStates()) {
+            Integer i = index.get(st);
+            if (i != null) accepting[i] = true;
+        }
+
+        Integer s = fsm.getInitialState() != null ? index.get(fsm.getInitialState()) : null;
+        start = s != null ? s : -1;
+    }
+
+    /** Number of accepted strings of exactly the given length. */
+    public BigInteger count(int length) {
+        if (start < 0) return BigInteger.ZERO;
+        checkMemory(length, 2);
+        BigInteger[] layer = base();
+        for (int l = 1; l <= length; l++) layer = step(layer);
+        return layer[start];
+    }
+
+    /**
+     * Draws k accepted strings of the given length uniformly at random (with replacement)
+     * and hands each one to the consumer. Returns the number of strings produced, which is
+     * zero when the machine accepts no string of that length.
+     * Only every stride-th DP layer is kept; the layers in between are recomputed segment by
+     * segment while a batch of samples walks down them, so memory grows with sqrt(length).
+     */
+    public long sample(int length, long k, StringConsumer out) throws IOException {
+        if (start < 0 || k <= 0) return 0;
+        int stride = Math.max(1, (int) Math.ceil(Math.sqrt(length + 1.0)));
+        checkMemory(length, length / stride + 1 + stride);
+        // checkpoints[j] = layer j * stride; layer r holds the accepted strings of length r per state
+        BigInteger[][] checkpoints = new BigInteger[length / stride + 1][];
+        BigInteger[] layer = base();
+        for (int l = 0; ; l++) {
+            if (l % stride == 0) checkpoints[l / stride] = layer;
+            if (l == length) break;
+            layer = step(layer);
+        }
+        if (layer[start].signum() == 0) return 0;
+
+        int batch = (int) Math.min(k, Math.max(1, SAMPLE_BATCH_CHARS / Math.max(1, length)));
+        int[] current = new int[batch];
+        char[][] bufs = new char[batch][length];
+        BigInteger[][] segment = new BigInteger[stride][];
+        for (long done = 0; done < k; ) {
+            int n = (int) Math.min(batch, k - done);
+            Arrays.fill(current, 0, n, start);
+            // a walker with r symbols left chooses by the counts in layer r - 1
+            for (int top = length - 1; top >= 0; ) {
+                int j = top / stride;
+                int low = j * stride;
+                segment[0] = checkpoints[j];
+                for (int l = low + 1; l <= top; l++) segment[l - low] = step(segment[l - low - 1]);
+                for (int l = top; l >= low; l--) {
+                    int pos = length - 1 - l;
+                    for (int w = 0; w < n; w++) {
+                        int a = pick(current[w], segment[l - low]);
+                        bufs[w][pos] = alphabet[a];
+                        current[w] = delta[current[w]][a];
+                    }
+                }
+                top = low - 1;
+            }
+            for (int w = 0; w < n; w++) out.accept(new String(bufs[w]));
+            done += n;
+        }
+        return k;
+    }
+
+    private int pick(int s, BigInteger[] next) {
+        BigInteger total = BigInteger.ZERO;
+        for (int t : delta[s]) if (t >= 0) total = total.add(next[t]);
+        BigInteger pick = uniformBelow(total);
+        int last = -1;
+        for (int a = 0; a < alphabet.length; a++) {
+            int t = delta[s][a];
+            if (t < 0 || next[t].signum() == 0) continue;
+            if (pick.compareTo(next[t]) < 0) return a;
+            pick = pick.subtract(next[t]);
+            last = a;
+        }
+        return last;
+    }
+
+    /**
+     * Rejects a request whose DP layers would obviously not fit in the heap. Counts of strings
+     * of length n need up to n * log2(|symbols|) bits per state, and the caller keeps the given
+     * number of layers alive at once.
+     */
+    private void checkMemory(int length, long layers) {
+        double bitsPerValue = length * (Math.log(Math.max(2, alphabet.length)) / Math.log(2));
+        double bytes = layers * (double) delta.length * (bitsPerValue / 8 + BIGINTEGER_OVERHEAD);
+        long budget = Runtime.getRuntime().maxMemory() / 2;
+        if (bytes > budget) {
+            throw new IllegalArgumentException("length " + length + " needs about " + (long) (bytes / (1 << 20))
+                    + " MB for " + delta.length + " states, more than the " + (budget >> 20) + " MB available");
+        }
+    }
+
+    private BigInteger[] base() {
+        BigInteger[] layer = new BigInteger[delta.length];
+        for (int s = 0; s < layer.length; s++) layer[s] = accepting[s] ? BigInteger.ONE : BigInteger.ZERO;
+        return layer;
+    }
+
+    private BigInteger[] step(BigInteger[] prev) {
+        BigInteger[] layer = new BigInteger[delta.length];
+        IntStream range = IntStream.range(0, delta.length);
+        if (delta.length >= PARALLEL_THRESHOLD) range = range.parallel();
+        range.forEach(s -> {
+            BigInteger sum = BigInteger.ZERO;
+            for (int t : delta[s]) if (t >= 0) sum = sum.add(prev[t]);
+            layer[s] = sum;
+        });
+        return layer;
+    }
+
+    private BigInteger uniformBelow(BigInteger bound) {
+        BigInteger r;
+        do {
+            r = new BigInteger(bound.bitLength(), random);
+        } while (r.compareTo(bound) >= 0);
+        return r;
+    }
+
+    public interface StringConsumer {
+        void accept(String s) throws IOException;
+    }
+}
@@ -8,7 +8,9 @@ public class Main {
         DeterministicFSM fsm = new DeterministicFSM();
         CommandProcessor processor = new CommandProcessor(fsm);
 
-        if (args.length == 1) {
+        if (args.length == 2 && args[0].equals("--record")) {
+            processor.startRecording(args[1]);
+        } else if (args.length == 1) {
             fsm.load(args[0]);
             return;
         }
@@ -49,6 +51,7 @@ public class Main {
             }
         }
 
+        processor.stopRecording();
         scanner.close();
     }
 }
@@ -0,0 +1,46 @@
+import java.io.File;
+import java.util.List;
+
+/**
+ * Compares building a machine with REGEX against loading the equivalent .txt file.
+ * Usage: java RegexBenchmark [width] [rounds]
+ * The pattern (0|1)*1(0|1)^width has a minimal DFA with 2^(width+1) states.
+ */
+public class RegexBenchmark {
+    public static void main(String[] args) throws Exception {
+        int width = args.length >= 1 ? Integer.parseInt(args[0]) : 9;
+        int rounds = args.length >= 2 ? Integer.parseInt(args[1]) : 5;
+
+        StringBuilder pattern = new StringBuilder("(0|1)*1");
+        for (int i = 0; i < width; i++) pattern.append("(0|1)");
+        List<Character> symbols = List.of('0', '1');
+
+        File txt = File.createTempFile("regex-bench", ".txt");
+        txt.deleteOnExit();
+        DeterministicFSM reference = new DeterministicFSM();
+        reference.addSymbols(symbols);
+        new RegexCompiler(pattern.toString(), symbols).compileInto(reference);
+        new FsmExporter(FsmExporter.Format.TXT, false).export(reference, txt.getPath());
+        System.out.println("pattern " + pattern + ": " + reference.getStates().size() + " states, "
+                + reference.getTransitions().size() + " transitions");
+
+        long regexBest = Long.MAX_VALUE;
+        long loadBest = Long.MAX_VALUE;
+        // first round is warm-up
+        for (int r = 0; r <= rounds; r++) {
+            long t0 = System.nanoTime();
+            DeterministicFSM fromRegex = new DeterministicFSM();
+            fromRegex.addSymbols(symbols);
+            new RegexCompiler(pattern.toString(), symbols).compileInto(fromRegex);
+            long t1 = System.nanoTime();
+            new FileManager().loadFromText(new DeterministicFSM(), txt.getPath());
+            long t2 = System.nanoTime();
+            if (r > 0) {
+                regexBest = Math.min(regexBest, t1 - t0);
+                loadBest = Math.min(loadBest, t2 - t1);
+            }
+        }
+        System.out.printf("REGEX build: %.2f ms%n", regexBest / 1e6);
+        System.out.printf("LOAD .txt:   %.2f ms%n", loadBest / 1e6);
+    }
+}
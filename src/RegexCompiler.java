@@ -0,0 +1,287 @@
+import java.util.*;
+
+/**
+ * Compiles a regular expression over the declared symbols straight into a minimal DFA.
+ * Supported syntax: symbols, '.', '|', '*', '+', '?' and parentheses. Whitespace is ignored.
+ * The expression is turned into a position (Glushkov) automaton, determinized by subset
+ * construction and minimized by partition refinement.
+ */
+public class RegexCompiler {
+    private static final char ANY = '.';
+    // subset construction can blow up exponentially; refuse before it exhausts the heap
+    private static final int MAX_STATES = 1 << 17;
+    // each nested group costs a few parser frames on the default thread stack
+    private static final int MAX_DEPTH = 256;
+
+    private final char[] alphabet;
+    private final String pattern;
+    // offsets[i] = index in the pattern as typed of pattern.charAt(i)
+    private final int[] offsets;
+    private int pos;
+    private int depth;
+
+    // position 0 is the virtual initial position; real positions start at 1
+    private final List<Character> labels = new ArrayList<>();
+    private final List<BitSet> follow = new ArrayList<>();
+
+    private int[][] delta;
+    private boolean[] accepting;
+
+    public RegexCompiler(String pattern, Collection<Character> symbols) {
+        StringBuilder sb = new StringBuilder();
+        int[] at = new int[pattern.length()];
+        for (int i = 0; i < pattern.length(); i++) {
+            char c = pattern.charAt(i);
+            if (Character.isWhitespace(c)) continue;
+            at[sb.length()] = i;
+            sb.append(Character.toUpperCase(c));
+        }
+        this.pattern = sb.toString();
+        this.offsets = Arrays.copyOf(at, sb.length());
+        this.alphabet = new char[symbols.size()];
+        int i = 0;
+        for (char c : symbols) alphabet[i++] = c;
+    }
+
+    /** Replaces the states, final states and transitions of the given machine with the compiled DFA. */
+    public void compileInto(FSM fsm) {
+        if (alphabet.length == 0) throw new IllegalArgumentException("no symbols declared");
+        labels.add(ANY);
+        follow.add(new BitSet());
+        pos = 0;
+        Frag root = pattern.isEmpty() ? Frag.empty() : parseAlt();
+        if (pos < pattern.length()) throw error("unexpected '" + pattern.charAt(pos) + "'", pos);
+        follow.get(0).or(root.first);
+
+        determinize(root);
+        minimize();
+        build(fsm);
+    }
+
+    // ---- parsing into first/last/follow sets ----
+
+    private Frag parseAlt() {
+        Frag f = parseConcat();
+        while (pos < pattern.length() && pattern.charAt(pos) == '|') {
+            pos++;
+            Frag g = parseConcat();
+            f.first.or(g.first);
+            f.last.or(g.last);
+            f.nullable |= g.nullable;
+        }
+        return f;
+    }
+
+    private Frag parseConcat() {
+        Frag f = Frag.empty();
+        while (pos < pattern.length() && pattern.charAt(pos) != '|' && pattern.charAt(pos) != ')') {
+            Frag g = parseRepeat();
+            for (int p = f.last.nextSetBit(0); p >= 0; p = f.last.nextSetBit(p + 1)) follow.get(p).or(g.first);
+            if (f.nullable) f.first.or(g.first);
+            if (!g.nullable) f.last.clear();
+            f.last.or(g.last);
+            f.nullable &= g.nullable;
+        }
+        return f;
+    }
+
+    private Frag parseRepeat() {
+        Frag f = parseAtom();
+        while (pos < pattern.length()) {
+            char c = pattern.charAt(pos);
+            if (c == '*' || c == '+') {
+                for (int p = f.last.nextSetBit(0); p >= 0; p = f.last.nextSetBit(p + 1)) follow.get(p).or(f.first);
+                if (c == '*') f.nullable = true;
+            } else if (c == '?') {
+                f.nullable = true;
+            } else {
+                break;
+            }
+            pos++;
+        }
+        return f;
+    }
+
+    private Frag parseAtom() {
+        if (pos >= pattern.length()) throw error("unexpected end of pattern", pos);
+        char c = pattern.charAt(pos++);
+        if (c == '(') {
+            if (++depth > MAX_DEPTH) throw error("nests groups deeper than " + MAX_DEPTH, pos - 1);
+            Frag f = parseAlt();
+            depth--;
+            if (pos >= pattern.length() || pattern.charAt(pos) != ')') throw error("missing ')'", pos);
+            pos++;
+            return f;
+        }
+        if (c != ANY && !isSymbol(c)) throw error("invalid symbol " + c, pos - 1);
+        int p = labels.size();
+        labels.add(c);
+        follow.add(new BitSet());
+        Frag f = Frag.empty();
+        f.nullable = false;
+        f.first.set(p);
+        f.last.set(p);
+        return f;
+    }
+
+    private boolean isSymbol(char c) {
+        for (char a : alphabet) if (a == c) return true;
+        return false;
+    }
+
+    private IllegalArgumentException error(String message, int at) {
+        if (at >= pattern.length()) return new IllegalArgumentException("regex " + message + " at end of pattern");
+        return new IllegalArgumentException("regex " + message + " at position " + (offsets[at] + 1));
+    }
+
+    // ---- subset construction ----
+
+    private void determinize(Frag root) {
+        Map<BitSet, Integer> ids = new HashMap<>();
+        List<BitSet> sets = new ArrayList<>();
+        List<int[]> rows = new ArrayList<>();
+
+        BitSet start = new BitSet();
+        start.set(0);
+        ids.put(start, 0);
+        sets.add(start);
+
+        for (int s = 0; s < sets.size(); s++) {
+            BitSet reach = new BitSet();
+            BitSet cur = sets.get(s);
+            for (int p = cur.nextSetBit(0); p >= 0; p = cur.nextSetBit(p + 1)) reach.or(follow.get(p));
+
+            int[] row = new int[alphabet.length];
+            for (int a = 0; a < alphabet.length; a++) {
+                BitSet next = new BitSet();
+                for (int q = reach.nextSetBit(0); q >= 0; q = reach.nextSetBit(q + 1)) {
+                    char l = labels.get(q);
+                    if (l == ANY || l == alphabet[a]) next.set(q);
+                }
+                Integer id = ids.get(next);
+                if (id == null) {
+                    if (sets.size() >= MAX_STATES) {
+                        throw new IllegalArgumentException("regex needs more than " + MAX_STATES + " states");
+                    }
+                    id = sets.size();
+                    ids.put(next, id);
+                    sets.add(next);
+                }
+                row[a] = id;
+            }
+            rows.add(row);
+        }
+
+        delta = rows.toArray(new int[0][]);
+        accepting = new boolean[sets.size()];
+        for (int s = 0; s < sets.size(); s++) {
+            BitSet set = sets.get(s);
+            accepting[s] = set.intersects(root.last) || (set.get(0) && root.nullable);
+        }
+    }
+
+    // ---- minimization (Moore partition refinement on the complete DFA) ----
+
+    private void minimize() {
+        int n = delta.length;
+        int[] block = new int[n];
+        for (int s = 0; s < n; s++) block[s] = accepting[s] ? 1 : 0;
+        int blocks = -1;
+        while (true) {
+            Map<List<Integer>, Integer> sig = new HashMap<>();
+            int[] next = new int[n];
+            for (int s = 0; s < n; s++) {
+                List<Integer> key = new ArrayList<>(alphabet.length + 1);
+                key.add(block[s]);
+                for (int t : delta[s]) key.add(block[t]);
+                Integer id = sig.get(key);
+                if (id == null) {
+                    id = sig.size();
+                    sig.put(key, id);
+                }
+                next[s] = id;
+            }
+            block = next;
+            if (sig.size() == blocks) break;
+            blocks = sig.size();
+        }
+
+        // renumber blocks in BFS order from the start state so names are stable
+        int[] order = new int[blocks];
+        Arrays.fill(order, -1);
+        int[] rep = new int[blocks];
+        Deque<Integer> queue = new ArrayDeque<>();
+        order[block[0]] = 0;
+        rep[0] = 0;
+        queue.add(0);
+        int count = 1;
+        while (!queue.isEmpty()) {
+            int s = queue.poll();
+            for (int t : delta[s]) {
+                if (order[block[t]] < 0) {
+                    order[block[t]] = count;
+                    rep[count++] = t;
+                    queue.add(t);
+                }
+            }
+        }
+
+        int[][] minDelta = new int[count][alphabet.length];
+        boolean[] minAccepting = new boolean[count];
+        for (int b = 0; b < count; b++) {
+            for (int a = 0; a < alphabet.length; a++) minDelta[b][a] = order[block[delta[rep[b]][a]]];
+            minAccepting[b] = accepting[rep[b]];
+        }
+        delta = minDelta;
+        accepting = minAccepting;
+    }
+
+    // ---- writing into the machine ----
+
+    private void build(FSM fsm) {
+        int dead = -1;
+        for (int s = 0; s < delta.length && dead < 0; s++) {
+            if (accepting[s]) continue;
+            boolean selfLoop = true;
+            for (int t : delta[s]) selfLoop &= t == s;
+            if (selfLoop) dead = s;
+        }
+
+        State[] byIndex = new State[delta.length];
+        List<State> states = fsm.getStates();
+        Set<State> finals = fsm.getFinalStates();
+        List<Transition> transitions = fsm.getTransitions();
+        states.clear();
+        finals.clear();
+        transitions.clear();
+
+        int name = 0;
+        for (int s = 0; s < delta.length; s++) {
+            if (s == dead && s != 0) continue;
+            byIndex[s] = new ConcreteState("Q" + name++);
+            states.add(byIndex[s]);
+            if (accepting[s]) finals.add(byIndex[s]);
+        }
+        for (int s = 0; s < delta.length; s++) {
+            if (byIndex[s] == null) continue;
+            for (int a = 0; a < alphabet.length; a++) {
+                int t = delta[s][a];
+                if (byIndex[t] == null) continue;
+                transitions.add(new ConcreteTransition(alphabet[a], byIndex[s], byIndex[t]));
+            }
+        }
+        fsm.setInitialState(byIndex[0].getName());
+    }
+
+    private static class Frag {
+        boolean nullable;
+        final BitSet first = new BitSet();
+        final BitSet last = new BitSet();
+
+        static Frag empty() {
+            Frag f = new Frag();
+            f.nullable = true;
+            return f;
+        }
+    }
+}
@@ -0,0 +1,110 @@
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compact binary trace of the commands in a session.
+ * Layout: magic, version, then one record per command holding the nanoseconds since the
+ * previous command (varint), the line number (varint), the byte length of the command
+ * (varint) and the command as UTF-8. A truncated final record is ignored on read.
+ */
+public class SessionTrace implements Closeable {
+    private static final int MAGIC = 0x46534D54; // "FSMT"
+    private static final int VERSION = 2;
+
+    private final DataOutputStream out;
+    // each record is assembled here and written in one call so a failure can't leave half a record
+    private final ByteArrayOutputStream scratch = new ByteArrayOutputStream();
+    private final DataOutputStream record = new DataOutputStream(scratch);
+    private long last;
+
+    public SessionTrace(String filename) throws IOException {
+        out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(filename), 1 << 16));
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        last = System.nanoTime();
+    }
+
+    public synchronized void record(String command, int lineNum) throws IOException {
+        long now = System.nanoTime();
+        byte[] text = command.getBytes(StandardCharsets.UTF_8);
+        scratch.reset();
+        writeVarLong(record, now - last);
+        writeVarLong(record, lineNum);
+        writeVarLong(record, text.length);
+        record.write(text);
+        scratch.writeTo(out);
+        // commands such as EXIT terminate the JVM, so every record has to reach the file
+        out.flush();
+        last = now;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        out.close();
+    }
+
+    public static List<Entry> read(String filename) throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(filename), 1 << 16))) {
+            if (in.readInt() != MAGIC) throw new IOException(filename + " is not a session trace");
+            int version = in.readInt();
+            if (version != VERSION) throw new IOException("unsupported trace version " + version);
+            long at = 0;
+            while (true) {
+                long delay;
+                int lineNum;
+                byte[] text;
+                try {
+                    delay = readVarLong(in);
+                    lineNum = (int) readVarLong(in);
+                    long length = readVarLong(in);
+                    if (length < 0 || length > Integer.MAX_VALUE) throw new IOException("malformed record length in trace");
+                    text = new byte[(int) length];
+                    in.readFully(text);
+                } catch (EOFException e) {
+                    // end of trace, possibly after a record cut short by a crash
+                    break;
+                }
+                at += delay;
+                entries.add(new Entry(at, lineNum, new String(text, StandardCharsets.UTF_8)));
+            }
+        }
+        return entries;
+    }
+
+    private static void writeVarLong(DataOutput out, long v) throws IOException {
+        while ((v & ~0x7FL) != 0) {
+            out.writeByte((int) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        out.writeByte((int) v);
+    }
+
+    private static long readVarLong(DataInput in) throws IOException {
+        long v = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.readByte();
+            v |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return v;
+        }
+        throw new IOException("malformed varint in trace");
+    }
+
+    public static class Entry {
+        private final long offsetNanos;
+        private final int lineNum;
+        private final String command;
+
+        public Entry(long offsetNanos, int lineNum, String command) {
+            this.offsetNanos = offsetNanos;
+            this.lineNum = lineNum;
+            this.command = command;
+        }
+
+        public long getOffsetNanos() { return offsetNanos; }
+        public int getLineNum() { return lineNum; }
+        public String getCommand() { return command; }
+    }
+}
@@ -0,0 +1,190 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Replays a session trace recorded with "--record" against fresh machines and reports
+ * per-command latency percentiles and allocated bytes.
+ * Usage: java TraceReplayer trace [--speed original|max] [--threads N]
+ * EXIT commands are skipped so the replay is not terminated, and commands that write files
+ * (LOG file, PRINT file, EXPORT, COMPILE, SAMPLE ... file) are skipped so replayers neither
+ * overwrite the files of the recorded session nor each other's. Commands run by a replayed
+ * LOAD come from the loaded file and are not filtered.
+ */
+public class TraceReplayer {
+    private final List<SessionTrace.Entry> entries;
+    private final boolean originalSpeed;
+    private final Map<String, Stats> stats = new TreeMap<>();
+
+    public TraceReplayer(List<SessionTrace.Entry> entries, boolean originalSpeed) {
+        this.entries = entries;
+        this.originalSpeed = originalSpeed;
+    }
+
+    private static final String USAGE = "Usage: java TraceReplayer trace [--speed original|max] [--threads N]";
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.out.println(USAGE);
+            return;
+        }
+        boolean original = false;
+        int threads = 1;
+        for (int i = 1; i < args.length; i += 2) {
+            if (i + 1 >= args.length) {
+                System.out.println("Error: missing value for option " + args[i]);
+                System.out.println(USAGE);
+                return;
+            }
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--speed" -> {
+                    if (!value.equalsIgnoreCase("original") && !value.equalsIgnoreCase("max")) {
+                        System.out.println("Error: invalid speed " + value);
+                        System.out.println(USAGE);
+                        return;
+                    }
+                    original = value.equalsIgnoreCase("original");
+                }
+                case "--threads" -> {
+                    threads = value.matches("\\d{1,4}") ? Integer.parseInt(value) : 0;
+                    if (threads < 1) {
+                        System.out.println("Error: invalid thread count " + value);
+                        System.out.println(USAGE);
+                        return;
+                    }
+                }
+                default -> {
+                    System.out.println("Error: unknown option " + args[i]);
+                    System.out.println(USAGE);
+                    return;
+                }
+            }
+        }
+
+        List<SessionTrace.Entry> entries;
+        try {
+            entries = SessionTrace.read(args[0]);
+        } catch (IOException e) {
+            System.out.println("Error: cannot read trace " + args[0] + " - " + e.getMessage());
+            return;
+        }
+        TraceReplayer replayer = new TraceReplayer(entries, original);
+
+        PrintStream console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        long start = System.nanoTime();
+        try {
+            replayer.run(threads);
+        } finally {
+            System.setOut(console);
+        }
+        long elapsed = System.nanoTime() - start;
+
+        long replayed = entries.stream().filter(e -> !skipped(e.getCommand())).count();
+        console.printf("%d commands x %d replayers in %.1f ms (%d skipped)%n",
+                replayed, threads, elapsed / 1e6, entries.size() - replayed);
+        replayer.report(console);
+    }
+
+    public void run(int threads) throws InterruptedException, ExecutionException {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) futures.add(pool.submit(() -> {
+                replayOnce();
+                return null;
+            }));
+            for (Future<?> f : futures) f.get();
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private void replayOnce() throws InterruptedException {
+        com.sun.management.ThreadMXBean mx = allocationBean();
+        CommandProcessor processor = new CommandProcessor(new DeterministicFSM());
+        Map<String, Stats> local = new HashMap<>();
+        long start = System.nanoTime();
+
+        for (SessionTrace.Entry e : entries) {
+            if (skipped(e.getCommand())) continue;
+            String cmd = e.getCommand().trim().split("\\s+")[0].toUpperCase();
+            if (originalSpeed) {
+                long wait = e.getOffsetNanos() - (System.nanoTime() - start);
+                if (wait > 0) TimeUnit.NANOSECONDS.sleep(wait);
+            }
+            long bytes = mx != null ? mx.getCurrentThreadAllocatedBytes() : 0;
+            long t0 = System.nanoTime();
+            processor.processCommand(e.getCommand(), e.getLineNum());
+            long t1 = System.nanoTime();
+            if (mx != null) bytes = mx.getCurrentThreadAllocatedBytes() - bytes;
+            local.computeIfAbsent(cmd, k -> new Stats()).add(t1 - t0, bytes);
+        }
+
+        synchronized (stats) {
+            local.forEach((cmd, s) -> stats.computeIfAbsent(cmd, k -> new Stats()).merge(s));
+        }
+    }
+
+    // EXIT would end the replay; the others write files named in the command
+    private static boolean skipped(String command) {
+        String[] tokens = command.trim().split("\\s+");
+        return switch (tokens[0].toUpperCase()) {
+            case "EXIT", "EXPORT", "COMPILE" -> true;
+            case "LOG", "PRINT" -> tokens.length >= 2;
+            case "SAMPLE" -> tokens.length >= 4;
+            default -> false;
+        };
+    }
+
+    private static com.sun.management.ThreadMXBean allocationBean() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean mx
+                && mx.isThreadAllocatedMemorySupported()) {
+            mx.setThreadAllocatedMemoryEnabled(true);
+            return mx;
+        }
+        return null;
+    }
+
+    public void report(PrintStream out) {
+        out.printf("%-14s %8s %12s %12s %12s %14s%n", "COMMAND", "COUNT", "P50 (us)", "P99 (us)", "P999 (us)", "ALLOC (B/op)");
+        synchronized (stats) {
+            stats.forEach((cmd, s) -> out.printf("%-14s %8d %12.1f %12.1f %12.1f %14d%n",
+                    cmd, s.size, s.percentile(0.50) / 1e3, s.percentile(0.99) / 1e3,
+                    s.percentile(0.999) / 1e3, s.size == 0 ? 0 : s.allocated / s.size));
+        }
+    }
+
+    private static class Stats {
+        private long[] latencies = new long[16];
+        private int size;
+        private long allocated;
+        private boolean sorted;
+
+        void add(long nanos, long bytes) {
+            if (size == latencies.length) latencies = Arrays.copyOf(latencies, size * 2);
+            latencies[size++] = nanos;
+            allocated += bytes;
+            sorted = false;
+        }
+
+        void merge(Stats other) {
+            for (int i = 0; i < other.size; i++) add(other.latencies[i], 0);
+            allocated += other.allocated;
+        }
+
+        long percentile(double p) {
+            if (size == 0) return 0;
+            if (!sorted) {
+                Arrays.sort(latencies, 0, size);
+                sorted = true;
+            }
+            int idx = (int) Math.ceil(p * size) - 1;
+            return latencies[Math.max(0, Math.min(idx, size - 1))];
+        }
+    }
+}